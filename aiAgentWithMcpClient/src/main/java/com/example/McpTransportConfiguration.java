@@ -0,0 +1,104 @@
+package com.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Connection settings for the streamable HTTP transport to the MCP server.
+ * <p>
+ * The MCP client transport and the OpenAI model share the application's {@code WebClient.Builder},
+ * so requests are routed by target: calls to the MCP server go through a dedicated pooled connector
+ * (HTTP/2 cleartext with multiplexed streams, gzip accepted), everything else keeps the default connector.
+ */
+@Configuration
+@Profile("streamable")
+@Slf4j
+public class McpTransportConfiguration {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider mcpConnectionProvider(@Value("${mcp.transport.max-connections:16}") int maxConnections,
+                                                    @Value("${mcp.transport.max-idle-time:60s}") Duration maxIdleTime) {
+        return connectionProvider(maxConnections, maxIdleTime);
+    }
+
+    @Bean
+    public WebClientCustomizer mcpClientConnectorCustomizer(
+            ConnectionProvider mcpConnectionProvider,
+            ObjectProvider<ClientHttpConnector> defaultConnector,
+            @Value("${spring.ai.mcp.client.streamable-http.connections.server1.url}") URI mcpServerUrl,
+            @Value("${mcp.transport.http2:true}") boolean http2,
+            @Value("${mcp.transport.compression:true}") boolean compression) {
+        log.info("MCP streamable HTTP transport to {} (http2: {}, compression: {})", mcpServerUrl, http2, compression);
+        ClientHttpConnector connector = clientConnector(mcpServerUrl, mcpConnectionProvider, http2, compression,
+                defaultConnector.getIfAvailable(ReactorClientHttpConnector::new));
+        return builder -> builder.clientConnector(connector);
+    }
+
+    /**
+     * Pool for connections to the MCP server. Also used by {@code McpTransportBenchmarkTests}, so the benchmark
+     * measures the same setup as the application.
+     */
+    public static ConnectionProvider connectionProvider(int maxConnections, Duration maxIdleTime) {
+        return ConnectionProvider.builder("mcp-client")
+                .maxConnections(maxConnections)
+                .maxIdleTime(maxIdleTime)
+                .build();
+    }
+
+    /**
+     * Connector that sends requests for {@code mcpServerUrl} over the pooled MCP connection and everything else
+     * through {@code defaultConnector}.
+     */
+    public static ClientHttpConnector clientConnector(URI mcpServerUrl, ConnectionProvider connectionProvider,
+                                                      boolean http2, boolean compression,
+                                                      ClientHttpConnector defaultConnector) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .protocol(http2 ? HttpProtocol.H2C : HttpProtocol.HTTP11)
+                .compress(compression)
+                .keepAlive(true);
+        return new McpRoutingConnector(mcpServerUrl, new ReactorClientHttpConnector(httpClient), defaultConnector);
+    }
+
+    record McpRoutingConnector(URI mcpServerUrl, ClientHttpConnector mcpConnector,
+                                       ClientHttpConnector defaultConnector) implements ClientHttpConnector {
+
+        @Override
+        public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri,
+                                                Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+            ClientHttpConnector target = isMcpServer(uri) ? mcpConnector : defaultConnector;
+            return target.connect(method, uri, requestCallback);
+        }
+
+        boolean isMcpServer(URI uri) {
+            return mcpServerUrl.getScheme().equalsIgnoreCase(uri.getScheme())
+                    && mcpServerUrl.getHost().equalsIgnoreCase(uri.getHost())
+                    && port(mcpServerUrl) == port(uri);
+        }
+
+        private static int port(URI uri) {
+            if (uri.getPort() != -1) {
+                return uri.getPort();
+            }
+            return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+    }
+
+}
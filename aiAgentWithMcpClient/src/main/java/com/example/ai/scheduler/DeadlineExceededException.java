@@ -0,0 +1,13 @@
+package com.example.ai.scheduler;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(RequestClass requestClass) {
+        super("Deadline exceeded before the model call started for tenant " + requestClass.tenant()
+                + " on endpoint " + requestClass.endpoint());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.ai.scheduler;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for {@link ModelCallScheduler}, bound from {@code ai.scheduler.*}.
+ *
+ * @param maxConcurrency       model calls in flight across all tenants
+ * @param tenantMaxConcurrency default cap on calls in flight for configured tenants; the {@code default} tenant, which
+ *                             serves requests without a configured key, may use all of {@code maxConcurrency}
+ *                             unless it is listed under {@code tenants} with its own cap
+ * @param deadline             default time a request may wait in the queue before it is dropped
+ * @param tenants              tenants by name, matched to requests by API key
+ * @param endpointCosts        relative cost of a call per endpoint, on top of {@link #DEFAULT_ENDPOINT_COSTS};
+ *                             endpoints not listed cost 1
+ */
+@ConfigurationProperties(prefix = "ai.scheduler")
+public record SchedulerProperties(@DefaultValue("8") int maxConcurrency,
+                                  @DefaultValue("2") int tenantMaxConcurrency,
+                                  @DefaultValue("30s") Duration deadline,
+                                  Map<String, Tenant> tenants,
+                                  Map<String, Double> endpointCosts) {
+
+    /**
+     * Endpoints that stream from the model or produce structured output hold a model slot longer than a plain call.
+     */
+    public static final Map<String, Double> DEFAULT_ENDPOINT_COSTS = Map.of(
+            "stream", 4.0,
+            "stream-mono", 4.0,
+            "structured", 4.0);
+
+    public SchedulerProperties {
+        tenants = tenants == null ? Map.of() : tenants;
+        Map<String, Double> costs = new HashMap<>(DEFAULT_ENDPOINT_COSTS);
+        if (endpointCosts != null) {
+            costs.putAll(endpointCosts);
+        }
+        endpointCosts = Map.copyOf(costs);
+    }
+
+    /**
+     * @param apiKey         value of the {@code X-API-Key} header identifying the tenant
+     * @param weight         share of model capacity relative to other tenants
+     * @param maxConcurrency cap on calls in flight, overrides {@code tenant-max-concurrency}
+     * @param deadline       queueing deadline, overrides {@code deadline}
+     */
+    public record Tenant(String apiKey, @DefaultValue("1") int weight, Integer maxConcurrency, Duration deadline) {
+    }
+
+    double costOf(String endpoint) {
+        return endpointCosts.getOrDefault(endpoint, 1.0);
+    }
+}
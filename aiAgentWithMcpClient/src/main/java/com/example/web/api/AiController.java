@@ -1,11 +1,14 @@
 package com.example.web.api;
 
 import com.example.ai.aisample.AiSampleService;
+import com.example.ai.scheduler.ModelCallScheduler;
+import com.example.ai.scheduler.RequestClass;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -21,18 +24,25 @@ public class AiController {
     @Autowired
     private AiSampleService aiSampleService;
 
+    @Autowired
+    private ModelCallScheduler modelCallScheduler;
+
     @GetMapping(value = "/generate/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
-    public Flux<String> generateAiResponse(@RequestParam(value = "userInput", defaultValue = "Say Hello to me") String userInput) {
+    public Flux<String> generateAiResponse(@RequestParam(value = "userInput", defaultValue = "Say Hello to me") String userInput,
+                                           @RequestHeader(value = ModelCallScheduler.API_KEY_HEADER, required = false) String apiKey) {
         log.info("[generateAiResponse] Processing request with input: {}", userInput);
-        Flux<String> response = aiSampleService.generateAiResponse(userInput);
+        RequestClass requestClass = modelCallScheduler.classify(apiKey, "stream");
+        Flux<String> response = modelCallScheduler.scheduleFlux(requestClass, () -> aiSampleService.generateAiResponse(userInput));
         log.info("[generateAiResponse] Generated response: {}", response);
         return response;
     }
 
     @GetMapping(value = "/generate/stream/mono", produces = MediaType.APPLICATION_NDJSON_VALUE)
-    public Mono<String> generateAiResponseStreamMono(@RequestParam(value = "userInput", defaultValue = "Say Hello to me") String userInput) {
+    public Mono<String> generateAiResponseStreamMono(@RequestParam(value = "userInput", defaultValue = "Say Hello to me") String userInput,
+                                                     @RequestHeader(value = ModelCallScheduler.API_KEY_HEADER, required = false) String apiKey) {
         log.info("[generateAiResponseStreamMono] Processing mono stream request: {}", userInput);
-        return aiSampleService.generateAiResponseStreamMono(userInput);
+        RequestClass requestClass = modelCallScheduler.classify(apiKey, "stream-mono");
+        return modelCallScheduler.scheduleMono(requestClass, () -> aiSampleService.generateAiResponseStreamMono(userInput));
     }
 
 }
@@ -0,0 +1,60 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class McpRoutingConnectorTests {
+
+    private final List<URI> mcpRequests = new ArrayList<>();
+    private final List<URI> defaultRequests = new ArrayList<>();
+    private final ClientHttpConnector mcpConnector = (method, uri, callback) -> record(mcpRequests, uri);
+    private final ClientHttpConnector defaultConnector = (method, uri, callback) -> record(defaultRequests, uri);
+
+    @Test
+    void matchesSchemeHostAndPortOfTheMcpServer() {
+        McpTransportConfiguration.McpRoutingConnector connector = connector("http://localhost:8082");
+
+        assertThat(connector.isMcpServer(URI.create("http://localhost:8082/mcp"))).isTrue();
+        assertThat(connector.isMcpServer(URI.create("HTTP://LocalHost:8082/mcp"))).isTrue();
+        assertThat(connector.isMcpServer(URI.create("https://localhost:8082/mcp"))).isFalse();
+        assertThat(connector.isMcpServer(URI.create("http://localhost:8080/mcp"))).isFalse();
+        assertThat(connector.isMcpServer(URI.create("http://mcp.example.com:8082/mcp"))).isFalse();
+    }
+
+    @Test
+    void defaultPortsMatchExplicitOnes() {
+        assertThat(connector("http://mcp.example.com").isMcpServer(URI.create("http://mcp.example.com:80/mcp"))).isTrue();
+        assertThat(connector("https://mcp.example.com").isMcpServer(URI.create("https://mcp.example.com:443/mcp"))).isTrue();
+        assertThat(connector("https://mcp.example.com:443").isMcpServer(URI.create("https://mcp.example.com/mcp"))).isTrue();
+        assertThat(connector("http://mcp.example.com").isMcpServer(URI.create("http://mcp.example.com:443/mcp"))).isFalse();
+        assertThat(connector("https://mcp.example.com").isMcpServer(URI.create("http://mcp.example.com/mcp"))).isFalse();
+    }
+
+    @Test
+    void routesOtherHostsToTheDefaultConnector() {
+        McpTransportConfiguration.McpRoutingConnector connector = connector("http://localhost:8082");
+
+        connector.connect(HttpMethod.POST, URI.create("http://localhost:8082/mcp"), request -> Mono.empty()).block();
+        connector.connect(HttpMethod.POST, URI.create("https://api.openai.com/v1/chat/completions"), request -> Mono.empty()).block();
+
+        assertThat(mcpRequests).containsExactly(URI.create("http://localhost:8082/mcp"));
+        assertThat(defaultRequests).containsExactly(URI.create("https://api.openai.com/v1/chat/completions"));
+    }
+
+    private McpTransportConfiguration.McpRoutingConnector connector(String mcpServerUrl) {
+        return new McpTransportConfiguration.McpRoutingConnector(URI.create(mcpServerUrl), mcpConnector, defaultConnector);
+    }
+
+    private static <T> Mono<T> record(List<URI> requests, URI uri) {
+        requests.add(uri);
+        return Mono.empty();
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.ai.aisample;
+
+import com.example.McpTransportConfiguration;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.WebClientStreamableHttpTransport;
+import io.modelcontextprotocol.client.transport.WebFluxSseClientTransport;
+import io.modelcontextprotocol.spec.McpClientTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tool-call latency, sequential and with concurrent calls on one session, and server heap per connected client for
+ * the SSE and streamable HTTP transports.
+ * <p>
+ * Needs a running mcpServer; start it with the profile matching the transport under test, then run e.g.
+ * <pre>
+ * mvn -pl mcpServer spring-boot:run -Dspring-boot.run.profiles=streamable
+ * mvn -pl aiAgentWithMcpClient test -Dtest=McpTransportBenchmarkTests -Dmcp.benchmark.transport=streamable
+ * </pre>
+ * Use {@code -Dmcp.benchmark.transport=sse} against a server started without the profile. The streamable clients are
+ * built with {@link McpTransportConfiguration}, and take its {@code mcp.transport.*} settings as system properties
+ * with the same defaults.
+ * <p>
+ * Heap is sampled several times and the minimum is kept. Pass {@code -Dmcp.benchmark.server-pid=<pid>} for a server
+ * on the same host to force a full GC with {@code jcmd} before each sample, so the figure reflects retained memory.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "mcp.benchmark.transport", matches = "sse|streamable")
+class McpTransportBenchmarkTests {
+
+    private static final String SERVER_URL = System.getProperty("mcp.benchmark.url", "http://localhost:8082");
+    private static final int WARMUP_CALLS = Integer.getInteger("mcp.benchmark.warmup", 200);
+    private static final int MEASURED_CALLS = Integer.getInteger("mcp.benchmark.calls", 2000);
+    private static final int CONCURRENCY = Integer.getInteger("mcp.benchmark.concurrency", 16);
+    private static final int CLIENTS = Integer.getInteger("mcp.benchmark.clients", 200);
+    private static final int HEAP_SAMPLES = 5;
+    private static final String SERVER_PID = System.getProperty("mcp.benchmark.server-pid");
+    private static final int MAX_CONNECTIONS = Integer.getInteger("mcp.transport.max-connections", 16);
+    private static final Duration MAX_IDLE_TIME =
+            DurationStyle.detectAndParse(System.getProperty("mcp.transport.max-idle-time", "60s"));
+    private static final boolean HTTP2 = Boolean.parseBoolean(System.getProperty("mcp.transport.http2", "true"));
+    private static final boolean COMPRESSION = Boolean.parseBoolean(System.getProperty("mcp.transport.compression", "true"));
+
+    private static final McpSchema.CallToolRequest ADD = new McpSchema.CallToolRequest("add", Map.of("a", 2, "b", 3));
+
+    private final String transport = System.getProperty("mcp.benchmark.transport");
+    private final List<ConnectionProvider> connectionProviders = new ArrayList<>();
+
+    @AfterEach
+    void disposeConnections() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+    @Test
+    void toolCallLatency() {
+        try (McpSyncClient client = newClient()) {
+            client.initialize();
+            warmUp(client);
+
+            long[] latencies = new long[MEASURED_CALLS];
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                latencies[i] = timedCall(client);
+            }
+            logLatencies("sequential", latencies);
+        }
+    }
+
+    @Test
+    void concurrentToolCallLatency() throws Exception {
+        try (McpSyncClient client = newClient();
+             ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY)) {
+            client.initialize();
+            warmUp(client);
+
+            int callsPerWorker = MEASURED_CALLS / CONCURRENCY;
+            List<Future<long[]>> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < CONCURRENCY; i++) {
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[callsPerWorker];
+                    for (int call = 0; call < callsPerWorker; call++) {
+                        latencies[call] = timedCall(client);
+                    }
+                    return latencies;
+                }));
+            }
+            long[] latencies = new long[callsPerWorker * CONCURRENCY];
+            for (int i = 0; i < CONCURRENCY; i++) {
+                System.arraycopy(workers.get(i).get(), 0, latencies, i * callsPerWorker, callsPerWorker);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            logLatencies(CONCURRENCY + " concurrent", latencies);
+            log.info("[{}] throughput with {} concurrent callers on one session: {} calls/s", transport, CONCURRENCY,
+                    (long) (latencies.length / seconds));
+        }
+    }
+
+    @Test
+    void serverMemoryPerClient() throws Exception {
+        double heapBefore = serverHeapUsed();
+        List<McpSyncClient> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < CLIENTS; i++) {
+                McpSyncClient client = newClient();
+                clients.add(client);
+                client.initialize();
+            }
+            double heapAfter = serverHeapUsed();
+            log.info("[{}] server heap with {} connected clients: before={}KB after={}KB perClient={}KB", transport,
+                    CLIENTS, (long) (heapBefore / 1024), (long) (heapAfter / 1024),
+                    (long) ((heapAfter - heapBefore) / CLIENTS / 1024));
+        } finally {
+            clients.forEach(McpSyncClient::closeGracefully);
+        }
+    }
+
+    /**
+     * Each client stands for one application instance, so a streamable client gets a connection pool of its own.
+     */
+    private McpSyncClient newClient() {
+        McpClientTransport clientTransport = switch (transport) {
+            case "streamable" -> WebClientStreamableHttpTransport.builder(WebClient.builder()
+                            .baseUrl(SERVER_URL)
+                            .clientConnector(McpTransportConfiguration.clientConnector(URI.create(SERVER_URL),
+                                    newConnectionProvider(), HTTP2, COMPRESSION, new ReactorClientHttpConnector())))
+                    .endpoint("/mcp")
+                    .build();
+            default -> WebFluxSseClientTransport.builder(WebClient.builder().baseUrl(SERVER_URL)).build();
+        };
+        return McpClient.sync(clientTransport)
+                .requestTimeout(Duration.ofSeconds(20))
+                .build();
+    }
+
+    private ConnectionProvider newConnectionProvider() {
+        ConnectionProvider connectionProvider = McpTransportConfiguration.connectionProvider(MAX_CONNECTIONS, MAX_IDLE_TIME);
+        connectionProviders.add(connectionProvider);
+        return connectionProvider;
+    }
+
+    private static void warmUp(McpSyncClient client) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            client.callTool(ADD);
+        }
+    }
+
+    private static long timedCall(McpSyncClient client) {
+        long start = System.nanoTime();
+        McpSchema.CallToolResult result = client.callTool(ADD);
+        long latency = System.nanoTime() - start;
+        assertThat(result.isError()).isNotEqualTo(Boolean.TRUE);
+        return latency;
+    }
+
+    private void logLatencies(String mode, long[] latencies) {
+        Arrays.sort(latencies);
+        log.info("[{}] {} tool call latency over {} calls: p50={}us p90={}us p99={}us max={}us", transport, mode,
+                latencies.length, micros(latencies, 0.50), micros(latencies, 0.90), micros(latencies, 0.99),
+                latencies[latencies.length - 1] / 1_000);
+    }
+
+    private static double serverHeapUsed() throws Exception {
+        double min = Double.MAX_VALUE;
+        for (int i = 0; i < HEAP_SAMPLES; i++) {
+            Thread.sleep(Duration.ofMillis(500));
+            if (SERVER_PID != null) {
+                Process gc = new ProcessBuilder("jcmd", SERVER_PID, "GC.run").redirectErrorStream(true).start();
+                gc.getInputStream().transferTo(OutputStream.nullOutputStream());
+                assertThat(gc.waitFor()).as("jcmd GC.run exit code").isZero();
+            }
+            JsonNode metric = WebClient.create(SERVER_URL)
+                    .get()
+                    .uri("/actuator/metrics/jvm.memory.used?tag=area:heap")
+                    .retrieve()
+                    .bodyToMono(JsonNode.class)
+                    .block(Duration.ofSeconds(10));
+            assertThat(metric).isNotNull();
+            min = Math.min(min, metric.path("measurements").path(0).path("value").asDouble());
+        }
+        return min;
+    }
+
+    private static long micros(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000;
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.example.ai.scheduler;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ModelCallSchedulerTests {
+
+    private static final Map<String, SchedulerProperties.Tenant> TENANTS = Map.of(
+            "heavy", new SchedulerProperties.Tenant("heavy-key", 1, null, null),
+            "interactive", new SchedulerProperties.Tenant("interactive-key", 1, null, null),
+            "priority", new SchedulerProperties.Tenant("priority-key", 4, null, null));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void interactiveTenantIsNotStarvedByHeavyStreams() {
+        DelayedStreamingChatModel model = new DelayedStreamingChatModel(Duration.ofMillis(20));
+        ModelCallScheduler scheduler = scheduler(Duration.ofSeconds(10));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        List<Flux<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            requests.add(stream(scheduler, chatClient, "heavy-key", "heavy-" + i));
+        }
+        for (int i = 0; i < 2; i++) {
+            requests.add(stream(scheduler, chatClient, "interactive-key", "interactive-" + i));
+        }
+        Flux.merge(requests).collectList().block(Duration.ofSeconds(10));
+
+        assertThat(model.completed).hasSize(8);
+        assertThat(model.completed.indexOf("interactive-1")).isLessThanOrEqualTo(4);
+        Timer queueWait = meterRegistry.find("ai.scheduler.queue.wait").tag("tenant", "interactive").timer();
+        assertThat(queueWait).isNotNull();
+        assertThat(queueWait.count()).isEqualTo(2);
+    }
+
+    @Test
+    void tenantWithHigherWeightGetsProportionallyMoreStreams() {
+        DelayedStreamingChatModel model = new DelayedStreamingChatModel(Duration.ofMillis(5));
+        ModelCallScheduler scheduler = scheduler(Duration.ofSeconds(10));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        List<Flux<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(stream(scheduler, chatClient, "priority-key", "priority-" + i));
+        }
+        for (int i = 0; i < 10; i++) {
+            requests.add(stream(scheduler, chatClient, "heavy-key", "heavy-" + i));
+        }
+        Flux.merge(requests).collectList().block(Duration.ofSeconds(10));
+
+        // while both tenants are backlogged, weight 4 vs 1 gives about 8 of the first 10 starts to priority
+        List<String> firstStarts = model.completed.subList(0, 10);
+        long priorityStarts = firstStarts.stream().filter(text -> text.startsWith("priority-")).count();
+        assertThat(priorityStarts).isBetween(8L, 9L);
+    }
+
+    @Test
+    void unconfiguredApiKeysShareDefaultTenantWithAllSlots() {
+        DelayedStreamingChatModel model = new DelayedStreamingChatModel(Duration.ofMillis(20));
+        ModelCallScheduler scheduler = scheduler(4, 1, Duration.ofSeconds(10));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        assertThat(scheduler.classify("unknown-key-a", "stream").tenant()).isEqualTo(ModelCallScheduler.DEFAULT_TENANT);
+
+        List<Flux<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            requests.add(stream(scheduler, chatClient, "unknown-key-" + i, "request-" + i));
+        }
+        Flux.merge(requests).collectList().block(Duration.ofSeconds(10));
+
+        assertThat(model.calls.get()).isEqualTo(8);
+        assertThat(model.maxActive.get()).isEqualTo(4);
+        assertThat(meterRegistry.find("ai.scheduler.queue.wait").timers())
+                .extracting(timer -> timer.getId().getTag("tenant"))
+                .containsOnly(ModelCallScheduler.DEFAULT_TENANT);
+    }
+
+    @Test
+    void streamPastDeadlineIsDroppedBeforeCallingModel() {
+        DelayedStreamingChatModel model = new DelayedStreamingChatModel(Duration.ofMillis(100));
+        ModelCallScheduler scheduler = scheduler(Duration.ofMillis(100));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        Flux<String> first = stream(scheduler, chatClient, "heavy-key", "first");
+        Flux<String> second = stream(scheduler, chatClient, "interactive-key", "second");
+        assertThatThrownBy(() -> Flux.merge(first, second).collectList().block(Duration.ofSeconds(10)))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        assertThat(model.calls.get()).isEqualTo(1);
+        assertThat(meterRegistry.counter("ai.scheduler.requests.dropped", "tenant", "interactive", "endpoint", "stream").count())
+                .isEqualTo(1.0);
+    }
+
+    private ModelCallScheduler scheduler(Duration deadline) {
+        return scheduler(1, 1, deadline);
+    }
+
+    private ModelCallScheduler scheduler(int maxConcurrency, int tenantMaxConcurrency, Duration deadline) {
+        SchedulerProperties properties = new SchedulerProperties(maxConcurrency, tenantMaxConcurrency, deadline, TENANTS, Map.of());
+        return new ModelCallScheduler(properties, meterRegistry);
+    }
+
+    private static Flux<String> stream(ModelCallScheduler scheduler, ChatClient chatClient, String apiKey, String text) {
+        return scheduler.scheduleFlux(scheduler.classify(apiKey, "stream"),
+                () -> chatClient.prompt().user(text).stream().content());
+    }
+
+    /**
+     * Chat model stub that streams the user text back in three chunks, one per delay.
+     */
+    private static final class DelayedStreamingChatModel implements ChatModel {
+        private final Duration delay;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger maxActive = new AtomicInteger();
+        private final List<String> completed = new CopyOnWriteArrayList<>();
+
+        private DelayedStreamingChatModel(Duration delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return stream(prompt).blockLast();
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            String text = prompt.getUserMessage().getText();
+            return Flux.just(text, "", "")
+                    .delayElements(delay)
+                    .map(chunk -> new ChatResponse(List.of(new Generation(new AssistantMessage(chunk)))))
+                    .doOnSubscribe(subscription -> {
+                        calls.incrementAndGet();
+                        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    })
+                    .doOnComplete(() -> completed.add(text))
+                    // before the terminal signal reaches the scheduler, which starts the next stream on release
+                    .doOnTerminate(active::decrementAndGet)
+                    .doOnCancel(active::decrementAndGet);
+        }
+    }
+}
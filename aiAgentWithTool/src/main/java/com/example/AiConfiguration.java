@@ -1,12 +1,15 @@
 package com.example;
 
+import com.example.ai.scheduler.SchedulerProperties;
 import com.example.tool.MathTools;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties(SchedulerProperties.class)
 public class AiConfiguration {
 
     @Bean
@@ -0,0 +1,274 @@
+package com.example.ai.scheduler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Weighted fair queueing in front of the upstream chat model.
+ * <p>
+ * Each request gets a virtual finish tag {@code max(V, lastFinish(tenant)) + cost / weight} and queued requests are
+ * started in finish tag order, within {@code max-concurrency} overall and the tenant's own concurrency cap. As in
+ * self-clocked fair queueing, the virtual time {@code V} is the finish tag of the last request started. A request
+ * still queued when its tenant's deadline passes is dropped with a {@link DeadlineExceededException} before any
+ * tokens are spent.
+ * <p>
+ * Configured API keys map to their named tenant. Requests with any other key, or without one, share the
+ * {@code default} tenant, so rotating keys does not buy a client extra queues and metric tags stay limited to the
+ * configured tenants. Unless configured otherwise, {@code default} may use all of {@code max-concurrency}. Idle
+ * tenant queues are removed once they no longer carry scheduling state.
+ * <p>
+ * Queue wait is published as the {@code ai.scheduler.queue.wait} timer and dropped requests as the
+ * {@code ai.scheduler.requests.dropped} counter, both tagged by tenant and endpoint.
+ */
+@Component
+@Slf4j
+public class ModelCallScheduler {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+    public static final String DEFAULT_TENANT = "default";
+
+    private final SchedulerProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, String> tenantsByApiKey = new HashMap<>();
+    private final Map<String, TenantQueue> queues = new HashMap<>();
+    private int inFlight;
+    private double virtualTime;
+
+    public ModelCallScheduler(SchedulerProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        properties.tenants().forEach((name, tenant) -> {
+            if (tenant.apiKey() != null) {
+                tenantsByApiKey.put(tenant.apiKey(), name);
+            }
+        });
+    }
+
+    public RequestClass classify(String apiKey, String endpoint) {
+        String tenant = apiKey == null ? null : tenantsByApiKey.get(apiKey);
+        return new RequestClass(tenant != null ? tenant : DEFAULT_TENANT, endpoint);
+    }
+
+    public <T> Flux<T> scheduleFlux(RequestClass requestClass, Supplier<? extends Publisher<T>> call) {
+        return Flux.usingWhen(acquire(requestClass), ticket -> call.get(),
+                this::release, (ticket, error) -> release(ticket), this::release);
+    }
+
+    public <T> Mono<T> scheduleMono(RequestClass requestClass, Supplier<Mono<T>> call) {
+        return Mono.usingWhen(acquire(requestClass), ticket -> call.get(),
+                this::release, (ticket, error) -> release(ticket), this::release);
+    }
+
+    /**
+     * Blocking variant for servlet endpoints: waits for a slot on the calling thread.
+     */
+    public <T> T scheduleCall(RequestClass requestClass, Supplier<T> call) {
+        Ticket ticket = acquire(requestClass).block();
+        try {
+            return call.get();
+        } finally {
+            releaseTicket(ticket);
+        }
+    }
+
+    private Mono<Ticket> acquire(RequestClass requestClass) {
+        return Mono.<Ticket>create(sink -> {
+                    Ticket ticket = new Ticket(requestClass, sink, System.nanoTime());
+                    // registered before the ticket is queued, so it cannot race a grant from another thread
+                    sink.onCancel(() -> cancel(ticket));
+                    enqueue(ticket);
+                    dispatch();
+                })
+                // a grant that lost the race with cancellation never reaches usingWhen, so release it here
+                .doOnDiscard(Ticket.class, this::releaseTicket);
+    }
+
+    private Mono<Void> release(Ticket ticket) {
+        return Mono.fromRunnable(() -> releaseTicket(ticket));
+    }
+
+    private synchronized void enqueue(Ticket ticket) {
+        if (ticket.state != State.PENDING) {
+            return;
+        }
+        TenantQueue queue = queues.computeIfAbsent(ticket.requestClass.tenant(), this::newTenantQueue);
+        ticket.queue = queue;
+        double startTag = Math.max(virtualTime, queue.lastFinish);
+        ticket.finishTag = startTag + properties.costOf(ticket.requestClass.endpoint()) / queue.weight;
+        queue.lastFinish = ticket.finishTag;
+        queue.pending.add(ticket);
+        ticket.expiry = Schedulers.parallel().schedule(() -> expire(ticket), queue.deadline.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void dispatch() {
+        List<Ticket> granted = new ArrayList<>();
+        List<Ticket> expired = new ArrayList<>();
+        synchronized (this) {
+            queues.values().removeIf(this::isIdle);
+            while (inFlight < properties.maxConcurrency()) {
+                Ticket next = null;
+                for (TenantQueue queue : queues.values()) {
+                    Ticket head = queue.pending.peek();
+                    if (head != null && queue.inFlight < queue.maxConcurrency
+                            && (next == null || head.finishTag < next.finishTag)) {
+                        next = head;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                next.queue.pending.poll();
+                if (next.isPastDeadline()) {
+                    next.state = State.DONE;
+                    expired.add(next);
+                    continue;
+                }
+                next.state = State.GRANTED;
+                inFlight++;
+                next.queue.inFlight++;
+                virtualTime = Math.max(virtualTime, next.finishTag);
+                granted.add(next);
+            }
+        }
+        expired.forEach(this::drop);
+        for (Ticket ticket : granted) {
+            ticket.expiry.dispose();
+            meterRegistry.timer("ai.scheduler.queue.wait", "tenant", ticket.requestClass.tenant(),
+                            "endpoint", ticket.requestClass.endpoint())
+                    .record(System.nanoTime() - ticket.enqueuedAt, TimeUnit.NANOSECONDS);
+            ticket.sink.success(ticket);
+        }
+    }
+
+    private void expire(Ticket ticket) {
+        synchronized (this) {
+            if (ticket.state != State.PENDING) {
+                return;
+            }
+            ticket.queue.pending.remove(ticket);
+            ticket.state = State.DONE;
+            removeIfIdle(ticket.queue);
+        }
+        drop(ticket);
+    }
+
+    private void drop(Ticket ticket) {
+        ticket.expiry.dispose();
+        meterRegistry.counter("ai.scheduler.requests.dropped", "tenant", ticket.requestClass.tenant(),
+                "endpoint", ticket.requestClass.endpoint()).increment();
+        log.warn("Dropping request for tenant {} on {} after {} ms in queue", ticket.requestClass.tenant(),
+                ticket.requestClass.endpoint(), Duration.ofNanos(System.nanoTime() - ticket.enqueuedAt).toMillis());
+        ticket.sink.error(new DeadlineExceededException(ticket.requestClass));
+    }
+
+    /**
+     * Only a queued ticket is withdrawn here. A granted ticket is released by {@code usingWhen}, or by the discard
+     * hook in {@link #acquire} if the grant was dropped.
+     */
+    private synchronized void cancel(Ticket ticket) {
+        if (ticket.state != State.PENDING) {
+            return;
+        }
+        ticket.state = State.DONE;
+        if (ticket.queue != null) {
+            ticket.queue.pending.remove(ticket);
+            ticket.expiry.dispose();
+            removeIfIdle(ticket.queue);
+        }
+    }
+
+    private void releaseTicket(Ticket ticket) {
+        synchronized (this) {
+            if (ticket.state != State.GRANTED) {
+                return;
+            }
+            ticket.state = State.DONE;
+            inFlight--;
+            ticket.queue.inFlight--;
+        }
+        dispatch();
+    }
+
+    /**
+     * A tenant with nothing queued or in flight and {@code lastFinish <= V} would start its next request at
+     * {@code V} anyway, so its queue can be dropped without changing the schedule.
+     */
+    private boolean isIdle(TenantQueue queue) {
+        return queue.pending.isEmpty() && queue.inFlight == 0 && queue.lastFinish <= virtualTime;
+    }
+
+    private void removeIfIdle(TenantQueue queue) {
+        if (isIdle(queue)) {
+            queues.remove(queue.tenant, queue);
+        }
+    }
+
+    private TenantQueue newTenantQueue(String tenant) {
+        SchedulerProperties.Tenant settings = properties.tenants().get(tenant);
+        int weight = settings == null ? 1 : Math.max(settings.weight(), 1);
+        int maxConcurrency;
+        if (settings != null && settings.maxConcurrency() != null) {
+            maxConcurrency = settings.maxConcurrency();
+        } else {
+            maxConcurrency = DEFAULT_TENANT.equals(tenant) ? properties.maxConcurrency() : properties.tenantMaxConcurrency();
+        }
+        Duration deadline = settings == null || settings.deadline() == null
+                ? properties.deadline() : settings.deadline();
+        return new TenantQueue(tenant, weight, maxConcurrency, deadline);
+    }
+
+    private enum State {PENDING, GRANTED, DONE}
+
+    private static final class TenantQueue {
+        private final String tenant;
+        private final int weight;
+        private final int maxConcurrency;
+        private final Duration deadline;
+        private final ArrayDeque<Ticket> pending = new ArrayDeque<>();
+        private int inFlight;
+        private double lastFinish;
+
+        private TenantQueue(String tenant, int weight, int maxConcurrency, Duration deadline) {
+            this.tenant = tenant;
+            this.weight = weight;
+            this.maxConcurrency = maxConcurrency;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final class Ticket {
+        private final RequestClass requestClass;
+        private final MonoSink<Ticket> sink;
+        private final long enqueuedAt;
+        private TenantQueue queue;
+        private double finishTag;
+        private State state = State.PENDING;
+        private Disposable expiry;
+
+        private Ticket(RequestClass requestClass, MonoSink<Ticket> sink, long enqueuedAt) {
+            this.requestClass = requestClass;
+            this.sink = sink;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        private boolean isPastDeadline() {
+            return System.nanoTime() - enqueuedAt >= queue.deadline.toNanos();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.ai.scheduler;
+
+/**
+ * Scheduling class of a model call: the tenant it is charged to and the endpoint it came from.
+ */
+public record RequestClass(String tenant, String endpoint) {
+}
@@ -0,0 +1,219 @@
+package com.example.ai.scheduler;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ModelCallSchedulerTests {
+
+    private static final Map<String, SchedulerProperties.Tenant> TENANTS = Map.of(
+            "heavy", new SchedulerProperties.Tenant("heavy-key", 1, null, null),
+            "interactive", new SchedulerProperties.Tenant("interactive-key", 1, null, null),
+            "priority", new SchedulerProperties.Tenant("priority-key", 4, null, null));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void interactiveTenantIsNotStarvedByHeavyTenant() {
+        DelayedChatModel model = new DelayedChatModel(Duration.ofMillis(50));
+        ModelCallScheduler scheduler = scheduler(1, 1, Duration.ofSeconds(10));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        List<Mono<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            requests.add(ask(scheduler, chatClient, "heavy-key", "heavy-" + i));
+        }
+        for (int i = 0; i < 2; i++) {
+            requests.add(ask(scheduler, chatClient, "interactive-key", "interactive-" + i));
+        }
+        Flux.merge(requests).collectList().block(Duration.ofSeconds(10));
+
+        assertThat(model.completed).hasSize(8);
+        assertThat(model.completed.indexOf("interactive-1")).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void tenantWithHigherWeightGetsProportionallyMoreStarts() {
+        DelayedChatModel model = new DelayedChatModel(Duration.ofMillis(20));
+        ModelCallScheduler scheduler = scheduler(1, 1, Duration.ofSeconds(10));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        List<Mono<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(ask(scheduler, chatClient, "priority-key", "priority-" + i));
+        }
+        for (int i = 0; i < 10; i++) {
+            requests.add(ask(scheduler, chatClient, "heavy-key", "heavy-" + i));
+        }
+        Flux.merge(requests).collectList().block(Duration.ofSeconds(10));
+
+        // while both tenants are backlogged, weight 4 vs 1 gives about 8 of the first 10 starts to priority
+        List<String> firstStarts = model.completed.subList(0, 10);
+        long priorityStarts = firstStarts.stream().filter(text -> text.startsWith("priority-")).count();
+        assertThat(priorityStarts).isBetween(8L, 9L);
+    }
+
+    @Test
+    void unconfiguredApiKeysShareDefaultTenant() {
+        DelayedChatModel model = new DelayedChatModel(Duration.ofMillis(20));
+        ModelCallScheduler scheduler = scheduler(4, 1, Duration.ofSeconds(10));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        assertThat(scheduler.classify("unknown-key-a", "generate").tenant()).isEqualTo(ModelCallScheduler.DEFAULT_TENANT);
+        assertThat(scheduler.classify("", "generate").tenant()).isEqualTo(ModelCallScheduler.DEFAULT_TENANT);
+
+        List<Mono<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(ask(scheduler, chatClient, "unknown-key-" + i, "request-" + i));
+        }
+        Flux.merge(requests).collectList().block(Duration.ofSeconds(10));
+
+        assertThat(model.calls.get()).isEqualTo(20);
+        assertThat(meterRegistry.find("ai.scheduler.queue.wait").timers())
+                .extracting(timer -> timer.getId().getTag("tenant"))
+                .containsOnly(ModelCallScheduler.DEFAULT_TENANT);
+    }
+
+    @Test
+    void defaultTenantMayUseAllSlots() {
+        DelayedChatModel model = new DelayedChatModel(Duration.ofMillis(50));
+        ModelCallScheduler scheduler = scheduler(4, 1, Duration.ofSeconds(10));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        List<Mono<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            requests.add(ask(scheduler, chatClient, null, "request-" + i));
+        }
+        Flux.merge(requests).collectList().block(Duration.ofSeconds(10));
+
+        assertThat(model.calls.get()).isEqualTo(8);
+        assertThat(model.maxActive.get()).isEqualTo(4);
+    }
+
+    @Test
+    void tenantConcurrencyIsCapped() {
+        DelayedChatModel model = new DelayedChatModel(Duration.ofMillis(50));
+        ModelCallScheduler scheduler = scheduler(4, 2, Duration.ofSeconds(10));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        List<Mono<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            requests.add(ask(scheduler, chatClient, "heavy-key", "request-" + i));
+        }
+        Flux.merge(requests).collectList().block(Duration.ofSeconds(10));
+
+        assertThat(model.calls.get()).isEqualTo(6);
+        assertThat(model.maxActive.get()).isEqualTo(2);
+    }
+
+    @Test
+    void requestPastDeadlineIsDroppedBeforeCallingModel() {
+        DelayedChatModel model = new DelayedChatModel(Duration.ofMillis(300));
+        ModelCallScheduler scheduler = scheduler(1, 1, Duration.ofMillis(100));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        CompletableFuture<String> first = ask(scheduler, chatClient, "heavy-key", "first").toFuture();
+        RequestClass requestClass = scheduler.classify("interactive-key", "generate");
+        assertThatThrownBy(() -> scheduler.scheduleCall(requestClass, () -> chatClient.prompt().user("second").call().content()))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        assertThat(first.join()).isEqualTo("first");
+        assertThat(model.calls.get()).isEqualTo(1);
+        assertThat(meterRegistry.counter("ai.scheduler.requests.dropped", "tenant", "interactive", "endpoint", "generate").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void cancelledRequestsFreeTheirSlots() {
+        DelayedChatModel model = new DelayedChatModel(Duration.ofMillis(200));
+        ModelCallScheduler scheduler = scheduler(1, 1, Duration.ofSeconds(10));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        Disposable running = ask(scheduler, chatClient, "heavy-key", "running").subscribe();
+        Disposable queued = ask(scheduler, chatClient, "heavy-key", "queued").subscribe();
+        queued.dispose();
+        running.dispose();
+
+        assertThat(ask(scheduler, chatClient, "heavy-key", "next").block(Duration.ofSeconds(5))).isEqualTo("next");
+        assertThat(model.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void queueWaitIsRecordedPerTenant() {
+        DelayedChatModel model = new DelayedChatModel(Duration.ofMillis(50));
+        ModelCallScheduler scheduler = scheduler(1, 1, Duration.ofSeconds(10));
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        Flux.merge(ask(scheduler, chatClient, "heavy-key", "first"), ask(scheduler, chatClient, "heavy-key", "second"))
+                .collectList().block(Duration.ofSeconds(10));
+
+        Timer queueWait = meterRegistry.find("ai.scheduler.queue.wait").tag("tenant", "heavy").timer();
+        assertThat(queueWait).isNotNull();
+        assertThat(queueWait.count()).isEqualTo(2);
+        assertThat(queueWait.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(40);
+    }
+
+    private ModelCallScheduler scheduler(int maxConcurrency, int tenantMaxConcurrency, Duration deadline) {
+        SchedulerProperties properties = new SchedulerProperties(maxConcurrency, tenantMaxConcurrency, deadline, TENANTS, Map.of());
+        return new ModelCallScheduler(properties, meterRegistry);
+    }
+
+    private static Mono<String> ask(ModelCallScheduler scheduler, ChatClient chatClient, String apiKey, String text) {
+        return scheduler.scheduleMono(scheduler.classify(apiKey, "generate"),
+                () -> Mono.fromCallable(() -> chatClient.prompt().user(text).call().content())
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    /**
+     * Chat model stub that answers with the user text after a fixed delay.
+     */
+    private static final class DelayedChatModel implements ChatModel {
+        private final Duration delay;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger maxActive = new AtomicInteger();
+        private final List<String> completed = new CopyOnWriteArrayList<>();
+
+        private DelayedChatModel(Duration delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+            String text = prompt.getUserMessage().getText();
+            completed.add(text);
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+        }
+    }
+}